@@ -5,9 +5,11 @@ import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.theme.Theme;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Push
 @SpringBootApplication
+@EnableScheduling
 @Theme(value = "my-app")
 public class Application implements AppShellConfigurator {
 
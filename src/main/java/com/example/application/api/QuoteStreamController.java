@@ -0,0 +1,116 @@
+package com.example.application.api;
+
+import com.example.application.api.QuoteStreamWriter.Format;
+import com.example.application.service.QuoteStreamService;
+import com.example.application.service.StockSymbolUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Machine-readable quote feed. Clients get a snapshot of the requested symbols followed by live
+ * updates, either as Server-Sent Events or, with {@code Accept: application/x-ndjson}, as
+ * newline-delimited JSON.
+ * <p>
+ * Responses are written with non-blocking servlet I/O by {@link QuoteStreamWriter}, so a client that
+ * stops reading never holds a thread. Streams that sent nothing for
+ * {@code quote.stream.heartbeat-interval} get a heartbeat (an SSE comment or an empty NDJSON line).
+ * Every stream is closed after {@code quote.stream.timeout}, so clients are expected to reconnect.
+ */
+@RestController
+@RequestMapping("/api/quotes")
+public class QuoteStreamController {
+
+    private static final int MAX_SYMBOLS = 50;
+
+    private final QuoteStreamService quoteStreamService;
+    private final ObjectMapper objectMapper;
+    private final long streamTimeout;
+    private final long writeTimeoutNanos;
+    // Write tasks never block, so these virtual threads cannot pin a carrier on a slow client
+    private final ExecutorService writeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public QuoteStreamController(
+            QuoteStreamService quoteStreamService,
+            ObjectMapper objectMapper,
+            @Value("${quote.stream.timeout:1800000}") long streamTimeout,
+            @Value("${quote.stream.write-timeout:30000}") long writeTimeout) {
+        this.quoteStreamService = quoteStreamService;
+        this.objectMapper = objectMapper;
+        this.streamTimeout = streamTimeout;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeout);
+    }
+
+    // Left without a produces condition so it does not tie with the NDJSON mapping and is picked for
+    // requests without an Accept header or with */*
+    @GetMapping("/stream")
+    public void streamEvents(
+            @RequestParam List<String> symbols, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        stream(parseSymbols(symbols), Format.SSE, request, response);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamNdjson(
+            @RequestParam List<String> symbols, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        stream(parseSymbols(symbols), Format.NDJSON, request, response);
+    }
+
+    private void stream(Set<String> symbols, Format format, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setContentType(format.contentType());
+        response.setHeader("Cache-Control", "no-cache");
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(streamTimeout);
+        QuoteStreamWriter writer = new QuoteStreamWriter(
+                format, objectMapper, asyncContext, response.getOutputStream(), writeExecutor, writeTimeoutNanos);
+        asyncContext.addListener(writer);
+        writer.start(quoteStreamService.subscribe(symbols, writer));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writeExecutor.shutdownNow();
+    }
+
+    static Set<String> parseSymbols(List<String> symbols) {
+        // Accept both ?symbols=AAPL,MSFT and repeated ?symbols= parameters
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String value : symbols) {
+            for (String input : value.split(",")) {
+                if (input.isBlank()) {
+                    continue;
+                }
+                String symbol = StockSymbolUtil.findKnownSymbol(input);
+                if (symbol == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown symbol: " + input.trim());
+                }
+                parsed.add(symbol);
+            }
+        }
+        if (parsed.isEmpty() || parsed.size() > MAX_SYMBOLS) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "Request between 1 and " + MAX_SYMBOLS + " symbols");
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.application.api;
+
+import com.example.application.service.QuoteStreamService.QuoteSink;
+import com.example.application.service.QuoteStreamService.Subscription;
+import com.example.application.service.StockService.StockQuote;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes one subscription to an async servlet response using non-blocking I/O.
+ * <p>
+ * Nothing here waits on the socket. While the client is not reading,
+ * {@link ServletOutputStream#isReady()} is false, quotes keep conflating in the {@link Subscription}
+ * and writing resumes from {@link #onWritePossible()}. A client that stays unwritable for longer
+ * than the write timeout is disconnected. {@link #onAvailable()} may be called while the service holds
+ * a lock, so it only schedules the drain loop. Writes are serialized through a single drain loop, so at
+ * most one executor task per connection is active at a time.
+ */
+final class QuoteStreamWriter implements QuoteSink, WriteListener, AsyncListener {
+
+    enum Format {
+        SSE("text/event-stream", ":heartbeat\n\n"),
+        NDJSON("application/x-ndjson", "\n");
+
+        private final String contentType;
+        private final byte[] heartbeat;
+
+        Format(String contentType, String heartbeat) {
+            this.contentType = contentType;
+            this.heartbeat = heartbeat.getBytes(StandardCharsets.UTF_8);
+        }
+
+        String contentType() {
+            return contentType;
+        }
+    }
+
+    private static final byte[] SSE_EVENT_PREFIX = "event:quote\ndata:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SSE_EVENT_SUFFIX = "\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final long WRITABLE = Long.MIN_VALUE;
+
+    private final Format format;
+    private final ObjectMapper objectMapper;
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream out;
+    private final Executor executor;
+    private final long writeTimeoutNanos;
+    private final AtomicInteger signals = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile Subscription subscription;
+    private volatile boolean started;
+    // Only touched by the drain loop, which never runs concurrently with itself
+    private long unwritableSince = WRITABLE;
+    private boolean needsFlush;
+
+    QuoteStreamWriter(
+            Format format,
+            ObjectMapper objectMapper,
+            AsyncContext asyncContext,
+            ServletOutputStream out,
+            Executor executor,
+            long writeTimeoutNanos) {
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.asyncContext = asyncContext;
+        this.out = out;
+        this.executor = executor;
+        this.writeTimeoutNanos = writeTimeoutNanos;
+    }
+
+    /**
+     * Switches the response to non-blocking mode and starts delivering the subscription.
+     */
+    void start(Subscription subscription) {
+        this.subscription = subscription;
+        if (closed.get()) {
+            subscription.cancel(); // The request ended before the subscription was attached
+            return;
+        }
+        out.setWriteListener(this);
+        started = true;
+        signal(); // Pick up the snapshot offered before the listener was registered
+    }
+
+    @Override
+    public void onAvailable() {
+        signal();
+    }
+
+    @Override
+    public void onWritePossible() {
+        signal();
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        close(true);
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        close(false);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        close(true);
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        close(true);
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // Not re-dispatched, nothing to do
+    }
+
+    private void signal() {
+        if (signals.getAndIncrement() == 0) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Only rejected on shutdown, when the container closes the connection. Closing here
+                // could re-enter the service from inside its own update.
+            }
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        do {
+            try {
+                writeWhileReady();
+            } catch (IOException | RuntimeException e) {
+                close(true);
+                return;
+            }
+            missed = signals.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void writeWhileReady() throws IOException {
+        if (!started || closed.get()) {
+            return;
+        }
+        while (true) {
+            if (!out.isReady()) {
+                // The container calls onWritePossible once the socket drains
+                long now = System.nanoTime();
+                if (unwritableSince == WRITABLE) {
+                    unwritableSince = now;
+                } else if (now - unwritableSince > writeTimeoutNanos) {
+                    close(true); // The client stopped reading
+                }
+                return;
+            }
+            unwritableSince = WRITABLE;
+            if (needsFlush) {
+                out.flush();
+                needsFlush = false;
+                continue;
+            }
+            byte[] chunk = nextChunk();
+            if (chunk == null) {
+                return;
+            }
+            out.write(chunk);
+            needsFlush = true;
+        }
+    }
+
+    private byte[] nextChunk() throws IOException {
+        List<StockQuote> quotes = subscription.takePending();
+        if (quotes.isEmpty()) {
+            return subscription.takeHeartbeat() ? format.heartbeat : null;
+        }
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        for (StockQuote quote : quotes) {
+            if (format == Format.SSE) {
+                chunk.write(SSE_EVENT_PREFIX);
+                chunk.write(objectMapper.writeValueAsBytes(quote));
+                chunk.write(SSE_EVENT_SUFFIX);
+            } else {
+                chunk.write(objectMapper.writeValueAsBytes(quote));
+                chunk.write('\n');
+            }
+        }
+        return chunk.toByteArray();
+    }
+
+    private void close(boolean completeResponse) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+        if (completeResponse) {
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                // Already completed by the container
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.application.service;
+
+import com.example.application.service.StockService.StockQuote;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans out live quotes to streaming API clients.
+ * <p>
+ * Finnhub is only ever asked for a symbol once at a time: all fetches go through a single thread,
+ * paced by {@link StockService}, and concurrent requests for the same symbol share the in-flight
+ * fetch. Failed fetches are dropped rather than published as placeholder prices.
+ * <p>
+ * Every subscriber has its own pending map keyed by symbol, so its buffer never holds more than
+ * one quote per requested symbol: a newer quote simply replaces an undelivered older one. Delivery
+ * is pulled by the subscriber's {@link QuoteSink} whenever its connection can take more, so this
+ * service never waits on a client.
+ */
+@Service
+public class QuoteStreamService {
+
+    /**
+     * Connection side of a subscription. It is told when there is something to deliver and takes it
+     * with {@link Subscription#takePending()} and {@link Subscription#takeHeartbeat()} once it can
+     * write without blocking.
+     */
+    public interface QuoteSink {
+        /** Called from any thread, possibly while holding internal locks, so it must not block. */
+        void onAvailable();
+    }
+
+    private record SequencedQuote(long sequence, StockQuote quote) {}
+
+    private final StockService stockService;
+    private final long heartbeatIntervalNanos;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, SequencedQuote> latestQuotes = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscription>> subscriptionsBySymbol = new ConcurrentHashMap<>();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Map<String, CompletableFuture<StockQuote>> inFlightFetches = new ConcurrentHashMap<>();
+    private final ExecutorService fetchExecutor = Executors.newSingleThreadExecutor();
+
+    public QuoteStreamService(
+            StockService stockService,
+            @Value("${quote.stream.heartbeat-interval:15000}") long heartbeatIntervalMillis) {
+        this.stockService = stockService;
+        this.heartbeatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMillis);
+    }
+
+    /**
+     * Registers a sink for the given symbols. The sink first receives the cached snapshot, followed
+     * by live updates until {@link Subscription#cancel()} is called or a send fails.
+     */
+    public Subscription subscribe(Collection<String> symbols, QuoteSink sink) {
+        Subscription subscription = new Subscription(Set.copyOf(symbols), sink);
+        subscriptions.add(subscription);
+        for (String symbol : subscription.symbols) {
+            // Registering and reading the snapshot under the same lock as publish keeps them ordered
+            subscriptionsBySymbol.compute(symbol, (key, symbolSubscriptions) -> {
+                if (symbolSubscriptions == null) {
+                    symbolSubscriptions = ConcurrentHashMap.newKeySet();
+                }
+                symbolSubscriptions.add(subscription);
+                SequencedQuote cached = latestQuotes.get(key);
+                if (cached != null) {
+                    subscription.offer(cached);
+                }
+                return symbolSubscriptions;
+            });
+            if (!latestQuotes.containsKey(symbol)) {
+                fetch(symbol);
+            }
+        }
+        return subscription;
+    }
+
+    @Scheduled(
+            fixedDelayString = "${quote.stream.refresh-interval:60000}",
+            initialDelayString = "${quote.stream.refresh-interval:60000}")
+    public void refreshSubscribedSymbols() {
+        for (String symbol : subscriptionsBySymbol.keySet()) {
+            fetch(symbol);
+        }
+    }
+
+    @Scheduled(
+            fixedDelayString = "${quote.stream.heartbeat-interval:15000}",
+            initialDelayString = "${quote.stream.heartbeat-interval:15000}")
+    public void sendHeartbeats() {
+        long idleSince = System.nanoTime() - heartbeatIntervalNanos;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.lastSentAt - idleSince <= 0) {
+                subscription.requestHeartbeat();
+            }
+        }
+    }
+
+    private void fetch(String symbol) {
+        CompletableFuture<StockQuote> fetch = new CompletableFuture<>();
+        if (inFlightFetches.putIfAbsent(symbol, fetch) != null) {
+            return; // Subscribers of this symbol get the result of the fetch already queued
+        }
+        fetch.whenComplete((quote, error) -> {
+            // Remove first: anyone registered by now is reached by publish, later arrivals fetch anew
+            inFlightFetches.remove(symbol, fetch);
+            if (quote != null) {
+                publish(quote);
+            }
+        });
+        try {
+            fetchExecutor.execute(() -> {
+                try {
+                    fetch.complete(fetchIfSubscribed(symbol));
+                } catch (RuntimeException e) {
+                    fetch.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fetch.completeExceptionally(e); // Shutting down, but never leave the symbol marked in flight
+        }
+    }
+
+    private StockQuote fetchIfSubscribed(String symbol) {
+        if (!subscriptionsBySymbol.containsKey(symbol)) {
+            return null; // Everyone left while the fetch was queued
+        }
+        return stockService.fetchQuote(symbol);
+    }
+
+    private void publish(StockQuote quote) {
+        subscriptionsBySymbol.computeIfPresent(quote.getSymbol(), (symbol, symbolSubscriptions) -> {
+            SequencedQuote previous = latestQuotes.get(symbol);
+            if (previous == null || !isSameQuote(previous.quote(), quote)) {
+                SequencedQuote update = new SequencedQuote(sequence.incrementAndGet(), quote);
+                latestQuotes.put(symbol, update);
+                for (Subscription subscription : symbolSubscriptions) {
+                    subscription.offer(update);
+                }
+            }
+            return symbolSubscriptions;
+        });
+    }
+
+    private static boolean isSameQuote(StockQuote a, StockQuote b) {
+        return Objects.equals(a.getPrice(), b.getPrice())
+                && Objects.equals(a.getChange(), b.getChange())
+                && Objects.equals(a.getChangePercent(), b.getChangePercent());
+    }
+
+    private void unregister(Subscription subscription) {
+        subscriptions.remove(subscription);
+        for (String symbol : subscription.symbols) {
+            subscriptionsBySymbol.computeIfPresent(symbol, (key, symbolSubscriptions) -> {
+                symbolSubscriptions.remove(subscription);
+                if (symbolSubscriptions.isEmpty()) {
+                    latestQuotes.remove(key);
+                    return null;
+                }
+                return symbolSubscriptions;
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    public final class Subscription {
+        private final Set<String> symbols;
+        private final QuoteSink sink;
+        private final Map<String, SequencedQuote> pending = new LinkedHashMap<>();
+        private final Map<String, Long> takenSequences = new HashMap<>();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        private volatile long lastSentAt = System.nanoTime();
+        private volatile boolean cancelled;
+
+        private Subscription(Set<String> symbols, QuoteSink sink) {
+            this.symbols = symbols;
+            this.sink = sink;
+        }
+
+        private void offer(SequencedQuote update) {
+            if (cancelled) {
+                return;
+            }
+            String symbol = update.quote().getSymbol();
+            synchronized (pending) {
+                Long taken = takenSequences.get(symbol);
+                if (taken != null && taken >= update.sequence()) {
+                    return; // A newer quote is already on its way to the client
+                }
+                pending.merge(symbol, update, (current, offered) ->
+                        offered.sequence() > current.sequence() ? offered : current);
+            }
+            sink.onAvailable();
+        }
+
+        private void requestHeartbeat() {
+            if (!cancelled) {
+                heartbeatDue.set(true);
+                sink.onAvailable();
+            }
+        }
+
+        /**
+         * Removes and returns the newest undelivered quote of each symbol, or an empty list.
+         */
+        public List<StockQuote> takePending() {
+            List<StockQuote> quotes;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return List.of();
+                }
+                quotes = new ArrayList<>(pending.size());
+                for (SequencedQuote update : pending.values()) {
+                    takenSequences.put(update.quote().getSymbol(), update.sequence());
+                    quotes.add(update.quote());
+                }
+                pending.clear();
+            }
+            heartbeatDue.set(false); // The quotes keep the connection busy already
+            lastSentAt = System.nanoTime();
+            return quotes;
+        }
+
+        /**
+         * Returns whether a heartbeat is due and clears it.
+         */
+        public boolean takeHeartbeat() {
+            if (!heartbeatDue.getAndSet(false)) {
+                return false;
+            }
+            lastSentAt = System.nanoTime();
+            return true;
+        }
+
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                unregister(this);
+                synchronized (pending) {
+                    pending.clear();
+                }
+            }
+        }
+    }
+}
@@ -9,44 +9,74 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class StockService {
     
     private final RestTemplate restTemplate;
     private final String apiKey;
-    private static final String BASE_URL = "https://finnhub.io/api/v1";
+    private final String baseUrl;
+    private static final long REQUEST_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
 
-    public StockService(@Value("${finnhub.api.key}") String apiKey) {
+    // Shared by the UI and the quote stream so together they stay within Finnhub's rate limit
+    private final ReentrantLock requestSlotLock = new ReentrantLock();
+    private long nextRequestAt = System.nanoTime();
+
+    public StockService(
+            @Value("${finnhub.api.key}") String apiKey,
+            @Value("${finnhub.api.url:https://finnhub.io/api/v1}") String baseUrl) {
         this.apiKey = apiKey;
+        this.baseUrl = baseUrl;
         this.restTemplate = new RestTemplate();
     }
 
     public List<StockQuote> getStockQuotes(List<String> symbols) {
         List<StockQuote> quotes = new ArrayList<>();
         for (String symbol : symbols) {
-            try {
-                String url = String.format("%s/quote?symbol=%s&token=%s",
-                        BASE_URL, symbol.toUpperCase(), apiKey);
-                
-                ResponseEntity<FinnhubQuote> response = restTemplate.getForEntity(url, FinnhubQuote.class);
-                FinnhubQuote data = response.getBody();
-                
-                if (data != null && data.getCurrentPrice() > 0) {
-                    quotes.add(convertToStockQuote(symbol, data));
-                } else {
-                    quotes.add(createDefaultQuote(symbol));
-                }
-                
+            StockQuote quote = fetchQuote(symbol);
+            quotes.add(quote != null ? quote : createDefaultQuote(symbol));
+        }
+        return quotes;
+    }
+
+    /**
+     * Fetches a single quote, returning {@code null} instead of a placeholder when Finnhub fails or
+     * has no price for the symbol. Blocks until the shared request slot is free.
+     */
+    public StockQuote fetchQuote(String symbol) {
+        try {
+            awaitRequestSlot();
+            String url = String.format("%s/quote?symbol=%s&token=%s",
+                    baseUrl, symbol.toUpperCase(), apiKey);
+
+            ResponseEntity<FinnhubQuote> response = restTemplate.getForEntity(url, FinnhubQuote.class);
+            FinnhubQuote data = response.getBody();
+
+            if (data != null && data.getCurrentPrice() > 0) {
+                return convertToStockQuote(symbol, data);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Error fetching stock quote for " + symbol + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    private void awaitRequestSlot() throws InterruptedException {
+        requestSlotLock.lock();
+        try {
+            long wait = nextRequestAt - System.nanoTime();
+            if (wait > 0) {
                 // Add a small delay to avoid hitting API rate limits
-                Thread.sleep(200);
-                
-            } catch (Exception e) {
-                System.err.println("Error fetching stock quote for " + symbol + ": " + e.getMessage());
-                quotes.add(createDefaultQuote(symbol));
+                TimeUnit.NANOSECONDS.sleep(wait);
             }
+            nextRequestAt = System.nanoTime() + REQUEST_INTERVAL_NANOS;
+        } finally {
+            requestSlotLock.unlock();
         }
-        return quotes;
     }
 
     private StockQuote convertToStockQuote(String symbol, FinnhubQuote finnhubQuote) {
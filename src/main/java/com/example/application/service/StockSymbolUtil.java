@@ -166,6 +166,22 @@ public class StockSymbolUtil {
         return input.trim().toUpperCase();
     }
 
+    /**
+     * Resolves an exact ticker or company name (case-insensitive) to a known symbol. Unlike
+     * {@link #getSymbol(String)} there is no partial matching or fallback, so unknown input yields
+     * {@code null}.
+     */
+    public static String findKnownSymbol(String input) {
+        if (input == null) {
+            return null;
+        }
+        String normalized = input.trim().toLowerCase();
+        if (symbolToName.containsKey(normalized)) {
+            return normalized.toUpperCase();
+        }
+        return nameToSymbol.get(normalized);
+    }
+
     public static List<String> searchCompanies(String query) {
         if (query == null || query.trim().isEmpty()) {
             return new ArrayList<>(nameToSymbol.values().stream()
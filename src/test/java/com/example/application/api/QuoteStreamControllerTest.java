@@ -0,0 +1,197 @@
+package com.example.application.api;
+
+import com.example.application.service.QuoteStreamService;
+import com.example.application.service.QuoteStreamService.QuoteSink;
+import com.example.application.service.QuoteStreamService.Subscription;
+import com.example.application.service.StockService.StockQuote;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(QuoteStreamController.class)
+@Import(QuoteStreamControllerTest.NonBlockingOutputConfig.class)
+class QuoteStreamControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private QuoteStreamService quoteStreamService;
+
+    @BeforeEach
+    void offerSnapshotOnSubscribe() {
+        when(quoteStreamService.subscribe(eq(Set.of("AAPL", "TSLA")), any())).thenAnswer(invocation -> {
+            Subscription subscription = mock(Subscription.class);
+            when(subscription.takePending()).thenReturn(List.of(quote("AAPL", "100.00")), List.of());
+            invocation.<QuoteSink>getArgument(1).onAvailable();
+            return subscription;
+        });
+    }
+
+    @Test
+    void streamsServerSentEventsWhenRequested() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/quotes/stream")
+                        .param("symbols", "aapl,Tesla")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Type", containsString(MediaType.TEXT_EVENT_STREAM_VALUE)))
+                .andReturn();
+
+        awaitContent(result, "event:quote\ndata:{\"symbol\":\"AAPL\"");
+    }
+
+    @Test
+    void streamsServerSentEventsByDefault() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/quotes/stream").param("symbols", "AAPL,TSLA"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Type", containsString(MediaType.TEXT_EVENT_STREAM_VALUE)))
+                .andReturn();
+
+        awaitContent(result, "event:quote\ndata:{\"symbol\":\"AAPL\"");
+    }
+
+    @Test
+    void streamsServerSentEventsForAnyMediaType() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/quotes/stream")
+                        .param("symbols", "AAPL,TSLA")
+                        .accept(MediaType.ALL))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Type", containsString(MediaType.TEXT_EVENT_STREAM_VALUE)))
+                .andReturn();
+
+        awaitContent(result, "event:quote\ndata:{\"symbol\":\"AAPL\"");
+    }
+
+    @Test
+    void streamsNdjsonWhenRequested() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/quotes/stream")
+                        .param("symbols", "AAPL", "TSLA")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Type", containsString(MediaType.APPLICATION_NDJSON_VALUE)))
+                .andReturn();
+
+        awaitContent(result, "{\"symbol\":\"AAPL\",\"price\":\"100.00\"");
+        awaitContent(result, "}\n");
+    }
+
+    @Test
+    void rejectsUnknownSymbols() throws Exception {
+        mockMvc.perform(get("/api/quotes/stream").param("symbols", "AAPL,ab").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(quoteStreamService);
+    }
+
+    /**
+     * Quotes are written from the writer's executor, so the body fills in after the request returns.
+     */
+    private static void awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!result.getResponse().getContentAsString().contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains(expected), () -> "Expected <" + expected + "> in <" + content + ">");
+    }
+
+    private static StockQuote quote(String symbol, String price) {
+        StockQuote quote = new StockQuote();
+        quote.setSymbol(symbol);
+        quote.setPrice(price);
+        quote.setChange("0.00");
+        quote.setChangePercent("0.00%");
+        return quote;
+    }
+
+    /**
+     * The mock response's output stream does not support {@link WriteListener}. This filter swaps in
+     * one that is always ready and otherwise writes through to the mock response.
+     */
+    @TestConfiguration
+    static class NonBlockingOutputConfig {
+
+        @Bean
+        Filter nonBlockingOutputFilter() {
+            return (request, response, chain) -> chain.doFilter(request, new HttpServletResponseWrapper(
+                    (HttpServletResponse) response) {
+                private ServletOutputStream outputStream;
+
+                @Override
+                public synchronized ServletOutputStream getOutputStream() throws IOException {
+                    if (outputStream == null) {
+                        outputStream = new AlwaysReadyOutputStream(super.getOutputStream());
+                    }
+                    return outputStream;
+                }
+            });
+        }
+    }
+
+    private static class AlwaysReadyOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+
+        AlwaysReadyOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                writeListener.onWritePossible();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.application.api;
+
+import com.example.application.api.QuoteStreamWriter.Format;
+import com.example.application.service.QuoteStreamService.Subscription;
+import com.example.application.service.StockService.StockQuote;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QuoteStreamWriterTest {
+
+    private final Subscription subscription = mock(Subscription.class);
+    private final AsyncContext asyncContext = mock(AsyncContext.class);
+    private final FakeOutputStream out = new FakeOutputStream();
+
+    @Test
+    void writesPendingQuotesAsServerSentEvents() {
+        when(subscription.takePending()).thenReturn(List.of(quote("AAPL", "100.00")), List.of());
+
+        writer(Format.SSE, TimeUnit.SECONDS.toNanos(30)).start(subscription);
+
+        assertEquals(
+                "event:quote\ndata:{\"symbol\":\"AAPL\",\"price\":\"100.00\",\"change\":\"0.00\","
+                        + "\"changePercent\":\"0.00%\"}\n\n",
+                out.content());
+        assertEquals(1, out.flushes);
+    }
+
+    @Test
+    void writesHeartbeatAsEmptyNdjsonLine() {
+        when(subscription.takePending()).thenReturn(List.of());
+        when(subscription.takeHeartbeat()).thenReturn(true, false);
+
+        writer(Format.NDJSON, TimeUnit.SECONDS.toNanos(30)).start(subscription);
+
+        assertEquals("\n", out.content());
+    }
+
+    @Test
+    void leavesQuotesInSubscriptionUntilClientIsWritable() {
+        out.ready = false;
+        QuoteStreamWriter writer = writer(Format.NDJSON, TimeUnit.SECONDS.toNanos(30));
+        writer.start(subscription);
+        writer.onAvailable();
+        verify(subscription, never()).takePending();
+
+        when(subscription.takePending()).thenReturn(List.of(quote("AAPL", "101.00")), List.of());
+        out.ready = true;
+        out.listener.onWritePossible();
+
+        assertEquals(
+                "{\"symbol\":\"AAPL\",\"price\":\"101.00\",\"change\":\"0.00\",\"changePercent\":\"0.00%\"}\n",
+                out.content());
+    }
+
+    @Test
+    void disconnectsClientUnwritableLongerThanWriteTimeout() throws Exception {
+        out.ready = false;
+        QuoteStreamWriter writer = writer(Format.SSE, 0);
+        writer.start(subscription);
+        Thread.sleep(1);
+
+        writer.onAvailable();
+
+        verify(subscription).cancel();
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    void failedWriteCancelsSubscription() {
+        out.failWrites = true;
+        when(subscription.takePending()).thenReturn(List.of(quote("AAPL", "100.00")));
+
+        writer(Format.SSE, TimeUnit.SECONDS.toNanos(30)).start(subscription);
+
+        verify(subscription).cancel();
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    void registersItselfAsWriteListener() {
+        QuoteStreamWriter writer = writer(Format.SSE, TimeUnit.SECONDS.toNanos(30));
+        when(subscription.takePending()).thenReturn(List.of());
+
+        writer.start(subscription);
+
+        assertSame(writer, out.listener);
+    }
+
+    private QuoteStreamWriter writer(Format format, long writeTimeoutNanos) {
+        return new QuoteStreamWriter(format, new ObjectMapper(), asyncContext, out, Runnable::run, writeTimeoutNanos);
+    }
+
+    private static StockQuote quote(String symbol, String price) {
+        StockQuote quote = new StockQuote();
+        quote.setSymbol(symbol);
+        quote.setPrice(price);
+        quote.setChange("0.00");
+        quote.setChangePercent("0.00%");
+        return quote;
+    }
+
+    private static class FakeOutputStream extends ServletOutputStream {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private WriteListener listener;
+        private boolean ready = true;
+        private boolean failWrites;
+        private int flushes;
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            listener = writeListener;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (failWrites) {
+                throw new IOException("Broken pipe");
+            }
+            bytes.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        String content() {
+            return bytes.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
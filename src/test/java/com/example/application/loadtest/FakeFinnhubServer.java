@@ -0,0 +1,69 @@
+package com.example.application.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stands in for Finnhub's {@code /quote} endpoint during load tests, so prices move on every request
+ * regardless of market hours and the API key's quota. Start it with
+ * <pre>
+ * java -cp target/test-classes com.example.application.loadtest.FakeFinnhubServer [port]
+ * </pre>
+ * and point the application at it with {@code FINNHUB_API_URL=http://localhost:9090/api/v1}.
+ */
+public class FakeFinnhubServer {
+
+    private static final double OPENING_PRICE = 100.0;
+
+    private final Map<String, Double> prices = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/api/v1/quote", new FakeFinnhubServer()::handleQuote);
+        server.start();
+        System.out.printf("Serving random-walk quotes on http://localhost:%d/api/v1%n", port);
+    }
+
+    private void handleQuote(HttpExchange exchange) throws IOException {
+        String symbol = queryParameter(exchange.getRequestURI().getRawQuery(), "symbol");
+        byte[] body;
+        if (symbol == null) {
+            body = "{\"c\":0,\"d\":null,\"dp\":null}".getBytes(StandardCharsets.UTF_8);
+        } else {
+            // Move by up to 1% per request so every refresh publishes an update
+            double price = prices.merge(symbol, OPENING_PRICE,
+                    (previous, ignored) -> previous * (1 + ThreadLocalRandom.current().nextDouble(-0.01, 0.01)));
+            double change = price - OPENING_PRICE;
+            body = String.format(Locale.ROOT, "{\"c\":%.4f,\"d\":%.4f,\"dp\":%.4f}",
+                    price, change, change / OPENING_PRICE * 100).getBytes(StandardCharsets.UTF_8);
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String queryParameter(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0 && pair.substring(0, separator).equals(name)) {
+                return pair.substring(separator + 1);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.application.loadtest;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Opens many concurrent streams against {@code /api/quotes/stream} and reports how many stay
+ * connected, how long the first quote and later updates take and how many quotes and heartbeats
+ * arrive. It only uses the JDK, so after {@code ./mvnw test-compile} it can be started with
+ * <pre>
+ * java -cp target/test-classes com.example.application.loadtest.QuoteStreamLoadClient \
+ *     [baseUrl] [clients] [symbols] [durationSeconds] [sse|ndjson] [connectsPerSecond] [stallFraction]
+ * </pre>
+ * The defaults are {@code http://localhost:8080 10000 AAPL,MSFT,TSLA 120 sse 500 0}. A
+ * {@code stallFraction} of 0.1 makes every tenth client connect and then never read, so its socket
+ * fills up the way a stuck consumer's would. Latencies are only reported for the clients that keep
+ * reading, which shows whether stalled clients slow everyone else down.
+ * <p>
+ * The server does not timestamp quotes, so update latency is measured from the first client that
+ * received the same update. It shows how long fan-out takes, not how long Finnhub took to answer.
+ * Run the application against {@link FakeFinnhubServer} with a short
+ * {@code quote.stream.refresh-interval} to get updates outside market hours.
+ * <p>
+ * Raise the open file limit on both machines first ({@code ulimit -n 65536}); one client host can
+ * usually hold around 28k connections to a single server port before it runs out of ephemeral
+ * ports. Watch the server's heap and thread count with {@code jcmd <pid> GC.heap_info} or JFR while
+ * this runs.
+ */
+public class QuoteStreamLoadClient {
+
+    private static final String SYMBOL_FIELD = "\"symbol\":\"";
+
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger stalled = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong quotes = new AtomicLong();
+    private final AtomicLong heartbeats = new AtomicLong();
+    private final LatencyHistogram firstQuoteLatency = new LatencyHistogram();
+    private final LatencyHistogram updateLatency = new LatencyHistogram();
+    // When each update was first seen by any reading client, keyed by its line
+    private final Map<String, Long> firstArrivals = new ConcurrentHashMap<>();
+    private final Queue<AutoCloseable> openStreams = new ConcurrentLinkedQueue<>();
+    private volatile boolean finished;
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        String symbols = args.length > 2 ? args[2] : "AAPL,MSFT,TSLA";
+        int durationSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 120;
+        boolean ndjson = args.length > 4 && args[4].equalsIgnoreCase("ndjson");
+        int connectsPerSecond = args.length > 5 ? Integer.parseInt(args[5]) : 500;
+        double stallFraction = args.length > 6 ? Double.parseDouble(args[6]) : 0;
+
+        new QuoteStreamLoadClient()
+                .run(URI.create(baseUrl + "/api/quotes/stream?symbols=" + symbols),
+                        clients, durationSeconds, ndjson, connectsPerSecond, stallFraction);
+    }
+
+    private void run(URI uri, int clients, int durationSeconds, boolean ndjson, int connectsPerSecond,
+            double stallFraction) throws InterruptedException {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Accept", ndjson ? "application/x-ndjson" : "text/event-stream")
+                .GET()
+                .build();
+        int activeAtEnd;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        System.out.printf("Opening %d %s streams to %s, %.0f%% of them stalled%n",
+                clients, ndjson ? "NDJSON" : "SSE", uri, stallFraction * 100);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Thread reporter = Thread.ofPlatform().daemon().start(this::report);
+            long pauseNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, connectsPerSecond);
+            for (int i = 0; i < clients && System.nanoTime() < deadline; i++) {
+                // Spread stalled clients evenly over the ramp-up
+                if ((long) ((i + 1) * stallFraction) > (long) (i * stallFraction)) {
+                    executor.execute(() -> stall(httpClient, request));
+                } else {
+                    executor.execute(() -> stream(httpClient, request, ndjson));
+                }
+                TimeUnit.NANOSECONDS.sleep(pauseNanos);
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, deadline - System.nanoTime()));
+            finished = true;
+            activeAtEnd = active.get();
+            reporter.interrupt();
+            openStreams.forEach(QuoteStreamLoadClient::closeQuietly);
+            executor.shutdownNow();
+        }
+        printSummary(clients, activeAtEnd);
+    }
+
+    private void stream(HttpClient httpClient, HttpRequest request, boolean ndjson) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+            if (response.statusCode() != 200) {
+                failed.incrementAndGet();
+                response.body().close();
+                return;
+            }
+            connected.incrementAndGet();
+            active.incrementAndGet();
+            openStreams.add(response.body());
+            readLines(response.body(), ndjson, start);
+        } catch (Exception e) {
+            if (!finished) {
+                failed.incrementAndGet();
+            }
+        }
+    }
+
+    private void stall(HttpClient httpClient, HttpRequest request) {
+        try {
+            // The body is never read, so the client stops taking data once its small buffer is full
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            openStreams.add(response.body());
+            if (response.statusCode() != 200) {
+                failed.incrementAndGet();
+                return;
+            }
+            stalled.incrementAndGet();
+        } catch (Exception e) {
+            if (!finished) {
+                failed.incrementAndGet();
+            }
+        }
+    }
+
+    private void readLines(Stream<String> body, boolean ndjson, long start) {
+        try {
+            Set<String> snapshotSymbols = new HashSet<>();
+            Iterator<String> lines = body.iterator();
+            while (lines.hasNext()) {
+                String line = lines.next();
+                boolean quote = ndjson ? !line.isEmpty() : line.startsWith("data:");
+                boolean heartbeat = ndjson ? line.isEmpty() : line.startsWith(":");
+                if (quote) {
+                    long now = System.nanoTime();
+                    quotes.incrementAndGet();
+                    if (snapshotSymbols.isEmpty()) {
+                        firstQuoteLatency.record(now - start);
+                    }
+                    // The first quote per symbol is the snapshot, everything after it a live update
+                    if (!snapshotSymbols.add(symbolOf(line))) {
+                        Long firstArrival = firstArrivals.putIfAbsent(line, now);
+                        updateLatency.record(firstArrival == null ? 0 : now - firstArrival);
+                    }
+                } else if (heartbeat) {
+                    heartbeats.incrementAndGet();
+                }
+            }
+            if (!finished) {
+                failed.incrementAndGet(); // Server closed the stream early
+            }
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private static String symbolOf(String line) {
+        int start = line.indexOf(SYMBOL_FIELD);
+        if (start < 0) {
+            return line;
+        }
+        start += SYMBOL_FIELD.length();
+        return line.substring(start, line.indexOf('"', start));
+    }
+
+    private static void closeQuietly(AutoCloseable stream) {
+        try {
+            stream.close();
+        } catch (Exception e) {
+            // Shutting down anyway
+        }
+    }
+
+    private void report() {
+        try {
+            while (true) {
+                TimeUnit.SECONDS.sleep(5);
+                System.out.printf("connected=%d active=%d stalled=%d failed=%d quotes=%d heartbeats=%d%n",
+                        connected.get(), active.get(), stalled.get(), failed.get(), quotes.get(), heartbeats.get());
+            }
+        } catch (InterruptedException e) {
+            // Run finished
+        }
+    }
+
+    private void printSummary(int clients, int activeAtEnd) {
+        System.out.printf("%nRequested %d, reading %d (still active at end %d), stalled %d, failed %d%n",
+                clients, connected.get(), activeAtEnd, stalled.get(), failed.get());
+        System.out.printf("Quotes %d, heartbeats %d%n", quotes.get(), heartbeats.get());
+        firstQuoteLatency.print("First quote");
+        updateLatency.print("Update");
+    }
+
+    /**
+     * Millisecond buckets up to a minute, so tens of millions of samples cost a fixed amount of memory.
+     */
+    private static final class LatencyHistogram {
+        private static final int MAX_MILLIS = 60_000;
+
+        private final AtomicLongArray counts = new AtomicLongArray(MAX_MILLIS + 1);
+        private final AtomicLong total = new AtomicLong();
+
+        void record(long nanos) {
+            counts.incrementAndGet((int) Math.min(MAX_MILLIS, TimeUnit.NANOSECONDS.toMillis(nanos)));
+            total.incrementAndGet();
+        }
+
+        void print(String name) {
+            long samples = total.get();
+            if (samples == 0) {
+                System.out.printf("%s ms: no samples%n", name);
+                return;
+            }
+            System.out.printf("%s ms: p50=%d p95=%d p99=%d max=%d (%d samples)%n", name,
+                    percentile(samples, 50), percentile(samples, 95), percentile(samples, 99),
+                    percentile(samples, 100), samples);
+        }
+
+        private long percentile(long samples, int percentile) {
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * samples));
+            long seen = 0;
+            for (int millis = 0; millis <= MAX_MILLIS; millis++) {
+                seen += counts.get(millis);
+                if (seen >= rank) {
+                    return millis;
+                }
+            }
+            return MAX_MILLIS;
+        }
+    }
+}
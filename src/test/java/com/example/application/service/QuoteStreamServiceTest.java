@@ -0,0 +1,308 @@
+package com.example.application.service;
+
+import com.example.application.service.QuoteStreamService.QuoteSink;
+import com.example.application.service.QuoteStreamService.Subscription;
+import com.example.application.service.StockService.StockQuote;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuoteStreamServiceTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final StubStockService stockService = new StubStockService();
+    private final QuoteStreamService service = new QuoteStreamService(stockService, 0);
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void subscribersOfUncachedSymbolShareOneFetch() throws Exception {
+        stockService.prices.put("AAPL", "100.00");
+        stockService.gate = new CountDownLatch(1);
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+
+        first.attach(service.subscribe(List.of("AAPL"), first));
+        second.attach(service.subscribe(List.of("AAPL"), second));
+        stockService.gate.countDown();
+
+        assertEquals("AAPL 100.00", first.next());
+        assertEquals("AAPL 100.00", second.next());
+        assertEquals(1, stockService.fetchCount("AAPL"));
+    }
+
+    @Test
+    void lateSubscriberGetsCachedSnapshot() throws Exception {
+        stockService.prices.put("AAPL", "100.00");
+        RecordingSink first = new RecordingSink();
+        first.attach(service.subscribe(List.of("AAPL"), first));
+        assertEquals("AAPL 100.00", first.next());
+
+        RecordingSink late = new RecordingSink();
+        late.attach(service.subscribe(List.of("AAPL"), late));
+
+        assertEquals("AAPL 100.00", late.next());
+        assertEquals(1, stockService.fetchCount("AAPL"));
+    }
+
+    @Test
+    void unwritableSubscriberOnlyReceivesLatestQuote() throws Exception {
+        stockService.prices.put("AAPL", "100.00");
+        RecordingSink slow = new RecordingSink();
+        slow.ready = false;
+        RecordingSink fast = new RecordingSink();
+        slow.attach(service.subscribe(List.of("AAPL"), slow));
+        fast.attach(service.subscribe(List.of("AAPL"), fast));
+        assertEquals("AAPL 100.00", fast.next());
+
+        for (String price : List.of("101.00", "102.00", "103.00")) {
+            stockService.prices.put("AAPL", price);
+            service.refreshSubscribedSymbols();
+            assertEquals("AAPL " + price, fast.next());
+        }
+        awaitPublished(5);
+        slow.setReady(true);
+
+        assertEquals("AAPL 103.00", slow.next());
+        assertNull(slow.poll());
+    }
+
+    @Test
+    void unchangedQuoteIsNotSentAgain() throws Exception {
+        stockService.prices.put("AAPL", "100.00");
+        RecordingSink sink = new RecordingSink();
+        sink.attach(service.subscribe(List.of("AAPL"), sink));
+        assertEquals("AAPL 100.00", sink.next());
+
+        service.refreshSubscribedSymbols();
+        stockService.awaitFetchCount("AAPL", 2);
+
+        assertNull(sink.poll());
+    }
+
+    @Test
+    void failedFetchIsNotPublished() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        sink.attach(service.subscribe(List.of("AAPL"), sink));
+        stockService.awaitFetchCount("AAPL", 1);
+        assertNull(sink.poll());
+
+        stockService.prices.put("AAPL", "100.00");
+        service.refreshSubscribedSymbols();
+
+        assertEquals("AAPL 100.00", sink.next());
+    }
+
+    @Test
+    void throwingFetchDoesNotBlockLaterFetches() throws Exception {
+        stockService.prices.put("AAPL", "100.00");
+        stockService.throwNext = true;
+        RecordingSink sink = new RecordingSink();
+        sink.attach(service.subscribe(List.of("AAPL"), sink));
+        stockService.awaitFetchCount("AAPL", 1);
+
+        service.refreshSubscribedSymbols();
+
+        assertEquals("AAPL 100.00", sink.next());
+        assertEquals(2, stockService.fetchCount("AAPL"));
+    }
+
+    @Test
+    void cancelledSubscriptionIsNotRefreshed() throws Exception {
+        stockService.prices.put("AAPL", "100.00");
+        RecordingSink sink = new RecordingSink();
+        Subscription subscription = service.subscribe(List.of("AAPL"), sink);
+        sink.attach(subscription);
+        assertEquals("AAPL 100.00", sink.next());
+
+        subscription.cancel();
+        service.refreshSubscribedSymbols();
+
+        assertEquals(1, stockService.fetchCount("AAPL"));
+    }
+
+    @Test
+    void cacheIsDroppedWhenLastSubscriberLeaves() throws Exception {
+        stockService.prices.put("AAPL", "100.00");
+        RecordingSink first = new RecordingSink();
+        Subscription subscription = service.subscribe(List.of("AAPL"), first);
+        first.attach(subscription);
+        assertEquals("AAPL 100.00", first.next());
+
+        subscription.cancel();
+        RecordingSink second = new RecordingSink();
+        second.attach(service.subscribe(List.of("AAPL"), second));
+
+        assertEquals("AAPL 100.00", second.next());
+        assertEquals(2, stockService.fetchCount("AAPL"));
+    }
+
+    @Test
+    void idleSubscriberGetsHeartbeat() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        sink.attach(service.subscribe(List.of("AAPL"), sink));
+
+        service.sendHeartbeats();
+
+        assertEquals("heartbeat", sink.next());
+    }
+
+    @Test
+    void takingQuotesClearsDueHeartbeat() throws Exception {
+        stockService.prices.put("AAPL", "100.00");
+        RecordingSink sink = new RecordingSink();
+        sink.ready = false;
+        sink.attach(service.subscribe(List.of("AAPL"), sink));
+        awaitPublished(2);
+        service.sendHeartbeats();
+
+        sink.setReady(true);
+
+        assertEquals("AAPL 100.00", sink.next());
+        assertNull(sink.poll());
+    }
+
+    @Test
+    void recentlyActiveSubscriberGetsNoHeartbeat() throws Exception {
+        QuoteStreamService hourlyHeartbeats = new QuoteStreamService(stockService, TimeUnit.HOURS.toMillis(1));
+        try {
+            stockService.prices.put("AAPL", "100.00");
+            RecordingSink sink = new RecordingSink();
+            sink.attach(hourlyHeartbeats.subscribe(List.of("AAPL"), sink));
+            assertEquals("AAPL 100.00", sink.next());
+
+            hourlyHeartbeats.sendHeartbeats();
+
+            assertNull(sink.poll());
+        } finally {
+            hourlyHeartbeats.shutdown();
+        }
+    }
+
+    /**
+     * Fetches run one after another on a single thread, so once the given fetch has run the quote of
+     * the one before it has been published.
+     */
+    private void awaitPublished(int fetchCount) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (stockService.fetchCount("AAPL") < fetchCount && System.nanoTime() < deadline) {
+            service.refreshSubscribedSymbols(); // Skipped while the previous fetch is still in flight
+            Thread.sleep(10);
+        }
+        assertTrue(stockService.fetchCount("AAPL") >= fetchCount, "Timed out waiting for fetches");
+    }
+
+    private static class StubStockService extends StockService {
+        private final Map<String, String> prices = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> fetchCounts = new ConcurrentHashMap<>();
+        private volatile CountDownLatch gate;
+        private volatile boolean throwNext;
+
+        StubStockService() {
+            super("", "");
+        }
+
+        @Override
+        public StockQuote fetchQuote(String symbol) {
+            CountDownLatch currentGate = gate;
+            if (currentGate != null) {
+                try {
+                    currentGate.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            try {
+                if (throwNext) {
+                    throwNext = false;
+                    throw new IllegalStateException("Unexpected response");
+                }
+                String price = prices.get(symbol);
+                if (price == null) {
+                    return null;
+                }
+                StockQuote quote = new StockQuote();
+                quote.setSymbol(symbol);
+                quote.setPrice(price);
+                quote.setChange("0.00");
+                quote.setChangePercent("0.00%");
+                return quote;
+            } finally {
+                fetchCounts.computeIfAbsent(symbol, key -> new AtomicInteger()).incrementAndGet();
+            }
+        }
+
+        int fetchCount(String symbol) {
+            AtomicInteger count = fetchCounts.get(symbol);
+            return count == null ? 0 : count.get();
+        }
+
+        void awaitFetchCount(String symbol, int expected) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+            while (fetchCount(symbol) < expected && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(expected, fetchCount(symbol));
+        }
+    }
+
+    /**
+     * Pulls from its subscription like a connection would, but only while {@link #ready} is set.
+     */
+    private static class RecordingSink implements QuoteSink {
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        private volatile Subscription subscription;
+        private volatile boolean ready = true;
+
+        RecordingSink attach(Subscription subscription) {
+            this.subscription = subscription;
+            onAvailable();
+            return this;
+        }
+
+        void setReady(boolean ready) {
+            this.ready = ready;
+            onAvailable();
+        }
+
+        @Override
+        public synchronized void onAvailable() {
+            Subscription current = subscription;
+            if (current == null || !ready) {
+                return;
+            }
+            for (StockQuote quote : current.takePending()) {
+                events.add(quote.getSymbol() + " " + quote.getPrice());
+            }
+            if (current.takeHeartbeat()) {
+                events.add("heartbeat");
+            }
+        }
+
+        String next() throws InterruptedException {
+            String event = events.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            assertTrue(event != null, "Timed out waiting for an event");
+            return event;
+        }
+
+        String poll() throws InterruptedException {
+            return events.poll(200, TimeUnit.MILLISECONDS);
+        }
+    }
+}
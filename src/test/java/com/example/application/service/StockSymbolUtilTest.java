@@ -0,0 +1,28 @@
+package com.example.application.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StockSymbolUtilTest {
+
+    @Test
+    void findKnownSymbolMatchesTickersCaseInsensitively() {
+        assertEquals("AAPL", StockSymbolUtil.findKnownSymbol("aapl"));
+        assertEquals("MBG.DE", StockSymbolUtil.findKnownSymbol(" mbg.de "));
+    }
+
+    @Test
+    void findKnownSymbolMatchesExactCompanyNames() {
+        assertEquals("TSLA", StockSymbolUtil.findKnownSymbol("Tesla"));
+        assertEquals("JPM", StockSymbolUtil.findKnownSymbol("jpmorgan chase"));
+    }
+
+    @Test
+    void findKnownSymbolRejectsPartialAndUnknownInput() {
+        assertNull(StockSymbolUtil.findKnownSymbol("ab"));
+        assertNull(StockSymbolUtil.findKnownSymbol("NOPE"));
+        assertNull(StockSymbolUtil.findKnownSymbol(null));
+    }
+}